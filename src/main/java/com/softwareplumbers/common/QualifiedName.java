@@ -1,8 +1,11 @@
 package com.softwareplumbers.common;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Predicate;
@@ -74,6 +77,16 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 	public static QualifiedName parse(String name, String separator) {
 		return ROOT.addParsed(name, separator);
 	}
+
+    /** Parse a string into a QualifiedName using the given format.
+     * 
+     * @param name String to parse
+     * @param format Format of string, e.g. QualifiedNameFormat.JSON_POINTER
+     * @return A qualified name consisting of elements of the given string, decoded according to the format
+     */
+    public static QualifiedName parse(String name, QualifiedNameFormat format) {
+        return format.parse(name);
+    }
 	
 	/** Add a new part to a qualified name
 	 * 
@@ -97,6 +110,10 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 		public String toString() { return "{}"; }
         @Override
 		public int hashCode() { return 77; }
+        @Override
+        public long fingerprint() { return ROOT_FINGERPRINT; }
+        @Override
+        public QualifiedName subtreeUpperBound() { return null; }
         @Override
 		public int compareTo(QualifiedName other) { return (other == ROOT) ? 0 : -1; }
         @Override
@@ -105,6 +122,8 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 		public <T> T applyReverse(T applyTo, BiFunction<T,String,T> accumulator, BiPredicate<T,String> whiletrue) { return applyTo; }
         @Override
 		public int indexFromEnd(Predicate<String> predicate) { return -1; }
+        @Override
+		public int indexOf(Predicate<String> predicate) { return -1; }
         @Override
 		public QualifiedName right(int index) { return this; }
         @Override
@@ -131,6 +150,66 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 	public int hashCode() {
 		return (parent.hashCode() * 17) ^ part.hashCode();
 	}
+    
+    /** Fingerprint of ROOT, and seed for the fingerprints of all other names */
+    public static final long ROOT_FINGERPRINT = 0x27D4EB2F165667C5L;
+    
+    private static final long FINGERPRINT_PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long FINGERPRINT_PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    
+    /** Compute the fingerprint of a name from the fingerprint of its parent.
+     * 
+     * Unlike hashCode, the fingerprint algorithm is fixed and will not change between
+     * releases, so fingerprints may be persisted or used to route work between processes.
+     * The fingerprint of a name is fingerprint(parent.fingerprint(), part), with ROOT
+     * having the fingerprint ROOT_FINGERPRINT. Each UTF-16 character of the part is mixed
+     * in xxHash64 style, and the result is finalized with the MurmurHash3 64 bit mixer.
+     * 
+     * @param parentFingerprint fingerprint of parent name
+     * @param part part added to parent name
+     * @return fingerprint of parent.add(part)
+     */
+    public static long fingerprint(long parentFingerprint, String part) {
+        long hash = parentFingerprint + part.length() * FINGERPRINT_PRIME_2;
+        for (int i = 0; i < part.length(); i++) {
+            hash = Long.rotateLeft(hash ^ (part.charAt(i) * FINGERPRINT_PRIME_2), 31) * FINGERPRINT_PRIME_1;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    /** Generate a stable 64 bit fingerprint for a Qualified Name.
+     * 
+     * @see #fingerprint(long, String)
+     * @return fingerprint
+     */
+    public long fingerprint() {
+        return fingerprint(parent.fingerprint(), part);
+    }
+    
+    /** Generate fingerprints for this name and all its ancestors in a single pass.
+     * 
+     * Element i of the result is the fingerprint of left(i+1), so the last element is
+     * the fingerprint of this name. ROOT is not included.
+     * 
+     * @return fingerprints of each prefix of this name, shortest first
+     */
+    public long[] prefixFingerprints() {
+        long[] result = new long[size()];
+        String[] parts = new String[result.length];
+        int index = parts.length;
+        for (QualifiedName current = this; current != ROOT; current = current.parent) parts[--index] = current.part;
+        long fingerprint = ROOT_FINGERPRINT;
+        for (index = 0; index < parts.length; index++) {
+            fingerprint = fingerprint(fingerprint, parts[index]);
+            result[index] = fingerprint;
+        }
+        return result;
+    }
  
     /** Compare this qualified name with another.
      * 
@@ -149,6 +228,76 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 		return this.part.compareTo(other.part);
 	}
 	
+    /** Order names depth-first, so that every subtree is contiguous.
+     * 
+     * Names are compared part by part from the first part, and a name is less than any
+     * longer name which starts with it. For example, a &lt; a.b &lt; a.b.c &lt; b. The natural
+     * ordering of compareTo instead places all shorter names first (a &lt; b &lt; a.b &lt; a.b.c),
+     * so subtrees are not contiguous in that order.
+     * 
+     * Use with subtreeUpperBound to get all names under a prefix from a sorted map.
+     */
+    public static final Comparator<QualifiedName> DEPTH_FIRST_ORDER = QualifiedName::compareDepthFirst;
+    
+    private static int compareDepthFirst(QualifiedName first, QualifiedName second) {
+        int firstSize = first.size();
+        int secondSize = second.size();
+        int result = Integer.compare(firstSize, secondSize);
+        for (; firstSize > secondSize; firstSize--) first = first.parent;
+        for (; secondSize > firstSize; secondSize--) second = second.parent;
+        // Walk up to the common ancestor; the last difference found is the one nearest ROOT
+        while (first != second) {
+            int comparison = first.part.compareTo(second.part);
+            if (comparison != 0) result = comparison;
+            first = first.parent;
+            second = second.parent;
+        }
+        return result;
+    }
+    
+    /** Get the exclusive upper bound of the subtree rooted at this name.
+     * 
+     * In DEPTH_FIRST_ORDER, a name is in the subtree rooted at this name (i.e. it starts
+     * with this name) if and only if it is greater than or equal to this name and less
+     * than the upper bound. The upper bound is the name with the same parent and the
+     * smallest part greater than this name's part.
+     * 
+     * @return exclusive upper bound of subtree, or null for ROOT, whose subtree is unbounded
+     */
+    public QualifiedName subtreeUpperBound() {
+        return parent.add(part + '\u0000');
+    }
+    
+    private static void checkDepthFirst(Comparator<?> comparator) {
+        if (comparator != DEPTH_FIRST_ORDER) 
+            throw new IllegalArgumentException("Collection must be ordered by QualifiedName.DEPTH_FIRST_ORDER");
+    }
+    
+    /** Get all entries in the subtree rooted at this name from a map.
+     * 
+     * @param <V> map value type
+     * @param map map ordered by DEPTH_FIRST_ORDER
+     * @return a view of the entries in map whose keys start with this name
+     * @throws IllegalArgumentException if map is not ordered by DEPTH_FIRST_ORDER
+     */
+    public <V> NavigableMap<QualifiedName,V> subtree(NavigableMap<QualifiedName,V> map) {
+        checkDepthFirst(map.comparator());
+        QualifiedName upperBound = subtreeUpperBound();
+        return upperBound == null ? map : map.subMap(this, true, upperBound, false);
+    }
+    
+    /** Get all names in the subtree rooted at this name from a set.
+     * 
+     * @param set set ordered by DEPTH_FIRST_ORDER
+     * @return a view of the names in set which start with this name
+     * @throws IllegalArgumentException if set is not ordered by DEPTH_FIRST_ORDER
+     */
+    public NavigableSet<QualifiedName> subtree(NavigableSet<QualifiedName> set) {
+        checkDepthFirst(set.comparator());
+        QualifiedName upperBound = subtreeUpperBound();
+        return upperBound == null ? set : set.subSet(this, true, upperBound, false);
+    }
+	
     /** Compare a qualified name with another object
      * 
      * @param other Other qualified name to compare
@@ -216,7 +365,9 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 	 * @return smallest index (from start) of part matching predicate
 	 */
 	public int indexOf(Predicate<String> predicate) {
-		return reverse().indexFromEnd(predicate);
+		int result = parent.indexOf(predicate);
+		if (result >= 0) return result;
+		return predicate.test(part) ? parent.size() : -1;
 	}
 	
 	/** Match this name against another using a predicate
@@ -291,6 +442,15 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
     public String join(final String separator) {
         return join(separator, DEFAULT_ESCAPE);
     }
+    
+    /** Join elements of the qualified name using the given format.
+     * 
+     * @param format format to use, e.g. QualifiedNameFormat.URI_PATH
+     * @return elements of path encoded according to the format
+     */
+    public String join(final QualifiedNameFormat format) {
+        return format.join(this);
+    }
 	
 	/** Add several elements in order.
 	 * 
@@ -353,6 +513,16 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
     public QualifiedName addParsed(String toParse, String separator) {
         return addParsed(toParse, separator, DEFAULT_ESCAPE);
     }
+    
+    /** Add several elements as parsed from a string in the given format
+     * 
+     * @param toParse string to parse
+     * @param format format of the string, e.g. QualifiedNameFormat.JSON_POINTER
+     * @return The qualified name parsed from then given string
+     */
+    public QualifiedName addParsed(String toParse, QualifiedNameFormat format) {
+        return format.addParsed(this, toParse);
+    }
 	
 	/** Default string representation
 	 * 
@@ -388,7 +558,10 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 	 * @return true if the first elements of this qualified name match the given name
 	 */
 	public boolean startsWith(QualifiedName name) {
-		return reverse().endsWith(name.reverse());
+        int excess = size() - name.size();
+        if (excess < 0) return false;
+        QualifiedName prefix = leftFromEnd(excess);
+		return prefix == name || prefix.equals(name);
 	}
 	
 	/** Return elements in a qualified name up to the one matching the predicate 
@@ -474,7 +647,7 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 	 * @return A part
 	 */
 	public String get(int index) {
-		return reverse().getFromEnd(index);
+		return getFromEnd(size() - 1 - index);
 	}
 	
 	/** Get number of parts in name
@@ -522,7 +695,10 @@ public class QualifiedName implements Comparable<QualifiedName>, Iterable<String
 	 */
 	@Override
 	public Iterator<String> iterator() {
-		return reverse().reverseIterator();
+        String[] parts = new String[size()];
+        int index = parts.length;
+        for (QualifiedName current = this; current != ROOT; current = current.parent) parts[--index] = current.part;
+		return Arrays.asList(parts).iterator();
 	}
 	
 	/** Iterate over parts from last to first
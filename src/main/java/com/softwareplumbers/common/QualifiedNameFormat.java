@@ -0,0 +1,246 @@
+package com.softwareplumbers.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Encoding of a qualified name into a single string, and back again.
+ *
+ * A format is an alternative to the separator/escape pair accepted by QualifiedName.join
+ * and QualifiedName.parse, for well-known encodings where the escaping rules are fixed.
+ * Built-in formats encode and decode each part in a single table-driven pass, and parts
+ * which need no escaping are passed through without being copied.
+ *
+ * Use with QualifiedName.join(QualifiedNameFormat) and QualifiedName.parse(String, QualifiedNameFormat).
+ */
+public abstract class QualifiedNameFormat {
+
+    /** RFC 6901 JSON Pointer format.
+     *
+     * Every part is preceded by '/', with '~' escaped as '~0' and '/' as '~1'. ROOT is
+     * the empty string. Empty parts are significant, so "/a//b" has three parts.
+     */
+    public static final QualifiedNameFormat JSON_POINTER = new JsonPointerFormat();
+
+    /** RFC 3986 URI path format.
+     *
+     * Parts are separated by '/'. Any character which is not valid unencoded in a path
+     * segment is percent-encoded as UTF-8. Leading, trailing, and repeated separators
+     * are ignored when parsing, as for QualifiedName.parse(name, "/"), so a name with
+     * an empty part cannot be represented and is rejected by join.
+     */
+    public static final QualifiedNameFormat URI_PATH = new UriPathFormat();
+
+    /** Separator character placed between parts */
+    private final char separator;
+
+    /** If true, separator is placed before every part, rather than only between parts,
+     * and empty parts are significant; otherwise empty segments are dropped when parsing */
+    private final boolean leading;
+
+    protected QualifiedNameFormat(char separator, boolean leading) {
+        this.separator = separator;
+        this.leading = leading;
+    }
+
+    /** Append an encoded part to a buffer.
+     *
+     * @param buffer buffer to which the encoded part is appended
+     * @param part part to encode
+     */
+    protected abstract void encode(StringBuilder buffer, String part);
+
+    /** Decode a part from a region of a string.
+     *
+     * @param encoded string containing encoded part
+     * @param from index of first character of encoded part
+     * @param to index after last character of encoded part
+     * @return decoded part
+     * @throws IllegalArgumentException if the encoded part is malformed
+     */
+    protected abstract String decode(String encoded, int from, int to);
+
+    /** Join the parts of a qualified name into a string using this format.
+     *
+     * @param name qualified name to encode
+     * @return encoded name
+     * @throws IllegalArgumentException if name has an empty part which this format cannot represent
+     */
+    public String join(QualifiedName name) {
+        StringBuilder buffer = new StringBuilder();
+        boolean first = true;
+        for (String part : name) {
+            if (part.isEmpty() && !leading)
+                throw new IllegalArgumentException("Empty part in " + name + " cannot be represented in this format");
+            if (leading || !first) buffer.append(separator);
+            encode(buffer, part);
+            first = false;
+        }
+        return buffer.toString();
+    }
+
+    /** Add parts parsed from a string in this format to a base name.
+     *
+     * @param base base name to which parsed parts are added
+     * @param toParse encoded name
+     * @return qualified name with the leftmost element of string as first new part
+     * @throws IllegalArgumentException if the string is not valid in this format
+     */
+    public QualifiedName addParsed(QualifiedName base, String toParse) {
+        QualifiedName result = base;
+        int length = toParse.length();
+        int start = 0;
+        if (leading) {
+            if (length == 0) return result;
+            if (toParse.charAt(0) != separator)
+                throw new IllegalArgumentException("Expected leading '" + separator + "' in " + toParse);
+            start = 1;
+        }
+        while (true) {
+            int end = toParse.indexOf(separator, start);
+            if (end < 0) end = length;
+            if (leading || end > start) result = result.add(decode(toParse, start, end));
+            if (end == length) return result;
+            start = end + 1;
+        }
+    }
+
+    /** Parse a string in this format into a qualified name.
+     *
+     * @param toParse encoded name
+     * @return qualified name
+     * @throws IllegalArgumentException if the string is not valid in this format
+     */
+    public QualifiedName parse(String toParse) {
+        return addParsed(QualifiedName.ROOT, toParse);
+    }
+
+    private static final class JsonPointerFormat extends QualifiedNameFormat {
+
+        private static final String[] ESCAPES = new String[128];
+
+        static {
+            ESCAPES['~'] = "~0";
+            ESCAPES['/'] = "~1";
+        }
+
+        private JsonPointerFormat() { super('/', true); }
+
+        @Override
+        protected void encode(StringBuilder buffer, String part) {
+            int length = part.length();
+            int copied = 0;
+            for (int i = 0; i < length; i++) {
+                char c = part.charAt(i);
+                if (c < 128 && ESCAPES[c] != null) {
+                    buffer.append(part, copied, i).append(ESCAPES[c]);
+                    copied = i + 1;
+                }
+            }
+            if (copied == 0) buffer.append(part); else buffer.append(part, copied, length);
+        }
+
+        @Override
+        protected String decode(String encoded, int from, int to) {
+            int escape = encoded.indexOf('~', from);
+            if (escape < 0 || escape >= to) return encoded.substring(from, to);
+            StringBuilder buffer = new StringBuilder(to - from);
+            int copied = from;
+            while (escape >= 0 && escape < to) {
+                buffer.append(encoded, copied, escape);
+                char code = escape + 1 < to ? encoded.charAt(escape + 1) : 0;
+                if (code == '0') buffer.append('~');
+                else if (code == '1') buffer.append('/');
+                else throw new IllegalArgumentException("Invalid escape sequence at index " + escape + " in " + encoded);
+                copied = escape + 2;
+                escape = encoded.indexOf('~', copied);
+            }
+            return buffer.append(encoded, copied, to).toString();
+        }
+    }
+
+    private static final class UriPathFormat extends QualifiedNameFormat {
+
+        private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+        /** Characters which may appear unencoded in an RFC 3986 path segment */
+        private static final boolean[] SAFE = new boolean[128];
+
+        /** Value of each hex digit, or -1 */
+        private static final byte[] HEX_VALUES = new byte[128];
+
+        static {
+            for (char c = 'a'; c <= 'z'; c++) SAFE[c] = true;
+            for (char c = 'A'; c <= 'Z'; c++) SAFE[c] = true;
+            for (char c = '0'; c <= '9'; c++) SAFE[c] = true;
+            for (char c : "-._~!$&'()*+,;=:@".toCharArray()) SAFE[c] = true;
+            Arrays.fill(HEX_VALUES, (byte)-1);
+            for (int i = 0; i < 16; i++) {
+                HEX_VALUES[HEX_DIGITS[i]] = (byte)i;
+                HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = (byte)i;
+            }
+        }
+
+        private UriPathFormat() { super('/', false); }
+
+        private static void appendEscaped(StringBuilder buffer, int b) {
+            buffer.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+
+        @Override
+        protected void encode(StringBuilder buffer, String part) {
+            int length = part.length();
+            int copied = 0;
+            for (int i = 0; i < length; i++) {
+                char c = part.charAt(i);
+                if (c < 128 && SAFE[c]) continue;
+                buffer.append(part, copied, i);
+                if (c < 0x80) {
+                    appendEscaped(buffer, c);
+                } else if (c < 0x800) {
+                    appendEscaped(buffer, 0xC0 | (c >> 6));
+                    appendEscaped(buffer, 0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(part.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, part.charAt(++i));
+                    appendEscaped(buffer, 0xF0 | (cp >> 18));
+                    appendEscaped(buffer, 0x80 | ((cp >> 12) & 0x3F));
+                    appendEscaped(buffer, 0x80 | ((cp >> 6) & 0x3F));
+                    appendEscaped(buffer, 0x80 | (cp & 0x3F));
+                } else {
+                    appendEscaped(buffer, 0xE0 | (c >> 12));
+                    appendEscaped(buffer, 0x80 | ((c >> 6) & 0x3F));
+                    appendEscaped(buffer, 0x80 | (c & 0x3F));
+                }
+                copied = i + 1;
+            }
+            if (copied == 0) buffer.append(part); else buffer.append(part, copied, length);
+        }
+
+        private static int hexValue(String encoded, int index, int to) {
+            char c = index < to ? encoded.charAt(index) : 0xFFFF;
+            int value = c < 128 ? HEX_VALUES[c] : -1;
+            if (value < 0) throw new IllegalArgumentException("Invalid percent-encoding at index " + index + " in " + encoded);
+            return value;
+        }
+
+        @Override
+        protected String decode(String encoded, int from, int to) {
+            int escape = encoded.indexOf('%', from);
+            if (escape < 0 || escape >= to) return encoded.substring(from, to);
+            StringBuilder buffer = new StringBuilder(to - from);
+            byte[] bytes = new byte[(to - escape) / 3];
+            int copied = from;
+            while (escape >= 0 && escape < to) {
+                buffer.append(encoded, copied, escape);
+                int count = 0;
+                while (escape < to && encoded.charAt(escape) == '%') {
+                    bytes[count++] = (byte)((hexValue(encoded, escape + 1, to) << 4) | hexValue(encoded, escape + 2, to));
+                    escape += 3;
+                }
+                buffer.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+                copied = escape;
+                escape = encoded.indexOf('%', copied);
+            }
+            return buffer.append(encoded, copied, to).toString();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.softwareplumbers.common;
+
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/** Resolve qualified names against a JSON document in a single streaming pass.
+ *
+ * Equivalent to calling name.apply(jsonObject) for each requested name, but without
+ * first building the whole document as a tree. Only the values of requested names are
+ * built, and subtrees which no requested name covers are skipped. Parts of a name index
+ * objects by key and arrays by decimal index, so {"a", "0"} resolves to the first element
+ * of array a.
+ *
+ * Where an object has the same key more than once, the last value wins, as it does in a
+ * JsonObject read from the same document. A later duplicate key can replace any value,
+ * so the whole document is always read.
+ *
+ * A resolver may be reused, including concurrently, to process many documents. Requires
+ * a JSON-P 1.1 implementation at runtime.
+ */
+public class QualifiedNameJsonResolver {
+
+    /** Node in the tree of requested names */
+    private static class Node {
+        final QualifiedName name;
+        final Map<String,Node> children = new HashMap<>();
+        boolean requested;
+
+        Node(QualifiedName name) { this.name = name; }
+    }
+
+    /** State of a single pass over a document */
+    private static class Resolution {
+        final Map<QualifiedName,JsonValue> results = new LinkedHashMap<>();
+        /** Nodes read so far; reading one again means its key was duplicated */
+        final Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private final Node root = new Node(QualifiedName.ROOT);
+
+    /** Create a resolver for a set of names.
+     *
+     * @param names names to resolve
+     */
+    public QualifiedNameJsonResolver(Iterable<QualifiedName> names) {
+        for (QualifiedName name : names) {
+            Node node = name.apply(root, (parent, part) -> parent.children.computeIfAbsent(part, key -> new Node(parent.name.add(key))));
+            node.requested = true;
+        }
+    }
+
+    /** Resolve the requested names against a stream of JSON parser events.
+     *
+     * @param parser parser positioned at the start of a JSON document
+     * @return map of requested names to values, omitting names which are not present
+     */
+    public Map<QualifiedName,JsonValue> resolve(JsonParser parser) {
+        Resolution resolution = new Resolution();
+        if ((root.requested || !root.children.isEmpty()) && parser.hasNext()) read(parser, parser.next(), root, resolution);
+        return resolution.results;
+    }
+
+    /** Resolve the requested names against a JSON document.
+     *
+     * @param reader reader from which a JSON document is read
+     * @return map of requested names to values, omitting names which are not present
+     */
+    public Map<QualifiedName,JsonValue> resolve(Reader reader) {
+        try (JsonParser parser = Json.createParser(reader)) {
+            return resolve(parser);
+        }
+    }
+
+    /** Resolve a single name against a stream of JSON parser events.
+     *
+     * @param parser parser positioned at the start of a JSON document
+     * @param name name to resolve
+     * @return the value of the named element, or null if not present
+     */
+    public static JsonValue resolve(JsonParser parser, QualifiedName name) {
+        return new QualifiedNameJsonResolver(Collections.singleton(name)).resolve(parser).get(name);
+    }
+
+    /** Read a value from the parser, collecting any requested values within it */
+    private static void read(JsonParser parser, Event event, Node node, Resolution resolution) {
+        // A duplicate key replaces everything resolved from its earlier value
+        if (!resolution.visited.add(node)) discard(node, resolution.results);
+        if (node.requested) {
+            collect(node, parser.getValue(), resolution.results);
+            return;
+        }
+        switch (event) {
+            case START_OBJECT:
+                while ((event = parser.next()) != Event.END_OBJECT) {
+                    Node child = node.children.get(parser.getString());
+                    event = parser.next();
+                    if (child == null) skip(parser, event); else read(parser, event, child, resolution);
+                }
+                break;
+            case START_ARRAY:
+                int index = 0;
+                while ((event = parser.next()) != Event.END_ARRAY) {
+                    Node child = node.children.get(Integer.toString(index++));
+                    if (child == null) skip(parser, event); else read(parser, event, child, resolution);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Remove the values of requested names in the subtree rooted at a node */
+    private static void discard(Node node, Map<QualifiedName,JsonValue> results) {
+        if (node.requested) results.remove(node.name);
+        for (Node child : node.children.values()) discard(child, results);
+    }
+
+    /** Skip over a value without building it */
+    private static void skip(JsonParser parser, Event event) {
+        if (event != Event.START_OBJECT && event != Event.START_ARRAY) return;
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /** Get the array index named by a part, or -1 if the part is not a decimal index */
+    private static int arrayIndex(String part) {
+        if (part.isEmpty() || part.length() > 9 || (part.length() > 1 && part.charAt(0) == '0')) return -1;
+        int index = 0;
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /** Collect the values of requested names from a value which has already been built */
+    private static void collect(Node node, JsonValue value, Map<QualifiedName,JsonValue> results) {
+        if (node.requested) results.put(node.name, value);
+        for (Map.Entry<String,Node> entry : node.children.entrySet()) {
+            JsonValue child = null;
+            if (value instanceof JsonObject) {
+                child = ((JsonObject)value).get(entry.getKey());
+            } else if (value instanceof JsonArray) {
+                JsonArray array = (JsonArray)value;
+                int index = arrayIndex(entry.getKey());
+                if (index >= 0 && index < array.size()) child = array.get(index);
+            }
+            if (child != null) collect(entry.getValue(), child, results);
+        }
+    }
+}
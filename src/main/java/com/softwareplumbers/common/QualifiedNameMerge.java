@@ -0,0 +1,425 @@
+package com.softwareplumbers.common;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/** Merge operations over sorted sequences of qualified names.
+ *
+ * All inputs must be sorted in QualifiedName.DEPTH_FIRST_ORDER without duplicates, and
+ * all outputs are sorted in the same order. Inputs are consumed lazily and only the
+ * current name from each input is held, so memory use is constant however long the
+ * inputs are. An IllegalArgumentException is thrown if an input is found to be out of order.
+ *
+ * Each input copies the parts of its current name into a buffer, and compares them once
+ * with the parts of the previous name, from the first part, to find how many leading
+ * parts the two share and to check the order. That costs one part comparison per shared
+ * part plus one, for every name read, unless the names share part objects.
+ *
+ * Comparisons between the two inputs reuse that knowledge. The number of leading parts
+ * shared by the two heads is kept from one comparison to the next. When an input moves
+ * on from its head, the parts its new head shares with the old one, and the parts the
+ * old head shared with the other input's head, decide the order of the new heads without
+ * any part comparison if they differ; otherwise the heads are compared from that depth.
+ * Either way no part shared by both heads is compared twice, so merging inputs which
+ * interleave within a deep common subtree costs about one part comparison per name. A
+ * removed or added subtree is skipped using the shared prefix lengths alone, without
+ * comparing its contents against the other input.
+ */
+public final class QualifiedNameMerge {
+
+    private QualifiedNameMerge() { }
+
+    /** Order of parts within DEPTH_FIRST_ORDER */
+    private static final Comparator<String> PART_ORDER = Comparator.naturalOrder();
+
+    /** A difference between an old and a new sequence of names, as reported by diff. */
+    public static final class Difference {
+
+        public enum Type { ADDED, REMOVED }
+
+        /** Whether the name was added or removed */
+        public final Type type;
+
+        /** The name added or removed */
+        public final QualifiedName name;
+
+        /** If true, every name in the subtree rooted at name was added or removed, and none is reported separately */
+        public final boolean subtree;
+
+        public Difference(Type type, QualifiedName name, boolean subtree) {
+            this.type = type;
+            this.name = name;
+            this.subtree = subtree;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Difference)) return false;
+            Difference difference = (Difference)other;
+            return type == difference.type && subtree == difference.subtree && name.equals(difference.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, name, subtree);
+        }
+
+        @Override
+        public String toString() {
+            return type + (subtree ? " subtree " : " ") + name;
+        }
+    }
+
+    /** An input sequence, with the parts of the current name and its relationship to the previous name */
+    private static final class Cursor {
+        private final Iterator<QualifiedName> source;
+        private final Comparator<String> partOrder;
+        QualifiedName head;
+        int size;
+        /** Parts of head, first part first */
+        String[] parts = new String[8];
+        /** Parts of the previous head, reused as the buffer for the next head */
+        private String[] previousParts = new String[8];
+        /** Number of leading parts head shares with the previous head */
+        int shared;
+
+        Cursor(Iterator<QualifiedName> source, Comparator<String> partOrder) {
+            this.source = source;
+            this.partOrder = partOrder;
+            advance();
+        }
+
+        void advance() {
+            if (!source.hasNext()) {
+                head = null;
+                return;
+            }
+            QualifiedName next = source.next();
+            int nextSize = next.size();
+            String[] nextParts = previousParts.length < nextSize ? new String[nextSize * 2] : previousParts;
+            int index = nextSize;
+            for (QualifiedName current = next; index > 0; current = current.parent) nextParts[--index] = current.part;
+            if (head == null) {
+                shared = 0;
+            } else {
+                // One pass from the first part finds both the shared prefix and the order
+                int limit = Math.min(size, nextSize);
+                int comparison = 0;
+                for (index = 0; index < limit; index++) {
+                    if (parts[index] == nextParts[index]) continue;
+                    comparison = partOrder.compare(parts[index], nextParts[index]);
+                    if (comparison != 0) break;
+                }
+                shared = index;
+                if (comparison == 0) comparison = Integer.compare(size, nextSize);
+                if (comparison >= 0)
+                    throw new IllegalArgumentException("Names must be distinct and in DEPTH_FIRST_ORDER: " + next + " follows " + head);
+            }
+            previousParts = parts;
+            parts = nextParts;
+            head = next;
+            size = nextSize;
+        }
+    }
+
+    /** Base class for merging two sorted inputs */
+    private abstract static class Merge<T> implements Iterator<T> {
+        final Cursor first;
+        final Cursor second;
+        private final Comparator<String> partOrder;
+        /** Input advanced since the heads were last compared, or null if both were */
+        private Cursor advanced;
+        /** Number of leading parts shared by the heads at the last comparison */
+        int shared;
+        private T next;
+
+        Merge(Iterator<QualifiedName> first, Iterator<QualifiedName> second, Comparator<String> partOrder) {
+            this.partOrder = partOrder;
+            this.first = new Cursor(first, partOrder);
+            this.second = new Cursor(second, partOrder);
+        }
+
+        /** Compare the heads of both inputs and record their shared prefix.
+         *
+         * Neither input may be exhausted, and at least one must have advanced since the last
+         * comparison. An input is only advanced alone past a head which is before the other
+         * head. If the new head shares more parts with the old one than the old one shared
+         * with the other head, it is still before the other head and shares as many parts
+         * with it as the old one did; if it shares fewer, the other head is now first and
+         * shares that many parts with it. When both inputs advance from the same name,
+         * whichever new head shares more parts with that name comes first.
+         */
+        int compareHeads() {
+            if (advanced == null) {
+                if (first.shared != second.shared) {
+                    shared = Math.min(first.shared, second.shared);
+                    return first.shared > second.shared ? -1 : 1;
+                }
+                shared = first.shared;
+            } else if (advanced.shared != shared) {
+                int order = advanced.shared > shared ? -1 : 1;
+                shared = Math.min(shared, advanced.shared);
+                return advanced == first ? order : -order;
+            }
+            int limit = Math.min(first.size, second.size);
+            int index = shared;
+            int comparison = 0;
+            for (; index < limit; index++) {
+                if (first.parts[index] == second.parts[index]) continue;
+                comparison = partOrder.compare(first.parts[index], second.parts[index]);
+                if (comparison != 0) break;
+            }
+            shared = index;
+            return comparison != 0 ? comparison : Integer.compare(first.size, second.size);
+        }
+
+        void advance(Cursor cursor) {
+            cursor.advance();
+            advanced = cursor;
+        }
+
+        void advanceBoth() {
+            first.advance();
+            second.advance();
+            advanced = null;
+        }
+
+        void skipSubtree(Cursor cursor) {
+            int size = cursor.size;
+            // Each name in the subtree shares at least size parts with the name before it
+            do {
+                cursor.advance();
+            } while (cursor.head != null && cursor.shared >= size);
+            // Names in the subtree share more parts with its root than the other head does,
+            // so the new head shares as many parts with the root as with the last of them
+            advanced = cursor;
+        }
+
+        /** Compute the next output, or return null if there is none */
+        abstract T computeNext();
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = computeNext();
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            T result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    /** Get all names in either input.
+     *
+     * @param first sorted names
+     * @param second sorted names
+     * @return sorted names in first or second
+     */
+    public static Iterator<QualifiedName> union(Iterator<QualifiedName> first, Iterator<QualifiedName> second) {
+        return union(first, second, PART_ORDER);
+    }
+
+    /** As union(Iterator, Iterator), comparing parts with partOrder, which must agree with String.compareTo */
+    static Iterator<QualifiedName> union(Iterator<QualifiedName> first, Iterator<QualifiedName> second, Comparator<String> partOrder) {
+        return new Merge<QualifiedName>(first, second, partOrder) {
+            @Override
+            QualifiedName computeNext() {
+                QualifiedName result;
+                if (this.first.head == null) {
+                    result = this.second.head;
+                    if (result != null) advance(this.second);
+                } else if (this.second.head == null) {
+                    result = this.first.head;
+                    advance(this.first);
+                } else {
+                    int comparison = compareHeads();
+                    if (comparison < 0) {
+                        result = this.first.head;
+                        advance(this.first);
+                    } else if (comparison > 0) {
+                        result = this.second.head;
+                        advance(this.second);
+                    } else {
+                        result = this.first.head;
+                        advanceBoth();
+                    }
+                }
+                return result;
+            }
+        };
+    }
+
+    /** Get all names in both inputs.
+     *
+     * @param first sorted names
+     * @param second sorted names
+     * @return sorted names in both first and second
+     */
+    public static Iterator<QualifiedName> intersection(Iterator<QualifiedName> first, Iterator<QualifiedName> second) {
+        return intersection(first, second, PART_ORDER);
+    }
+
+    /** As intersection(Iterator, Iterator), comparing parts with partOrder, which must agree with String.compareTo */
+    static Iterator<QualifiedName> intersection(Iterator<QualifiedName> first, Iterator<QualifiedName> second, Comparator<String> partOrder) {
+        return new Merge<QualifiedName>(first, second, partOrder) {
+            @Override
+            QualifiedName computeNext() {
+                while (this.first.head != null && this.second.head != null) {
+                    int comparison = compareHeads();
+                    if (comparison < 0) {
+                        advance(this.first);
+                    } else if (comparison > 0) {
+                        advance(this.second);
+                    } else {
+                        QualifiedName result = this.first.head;
+                        advanceBoth();
+                        return result;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /** Get all names in the first input which are not in the second.
+     *
+     * @param first sorted names
+     * @param second sorted names
+     * @return sorted names in first but not in second
+     */
+    public static Iterator<QualifiedName> difference(Iterator<QualifiedName> first, Iterator<QualifiedName> second) {
+        return difference(first, second, PART_ORDER);
+    }
+
+    /** As difference(Iterator, Iterator), comparing parts with partOrder, which must agree with String.compareTo */
+    static Iterator<QualifiedName> difference(Iterator<QualifiedName> first, Iterator<QualifiedName> second, Comparator<String> partOrder) {
+        return new Merge<QualifiedName>(first, second, partOrder) {
+            @Override
+            QualifiedName computeNext() {
+                while (this.first.head != null) {
+                    int comparison = this.second.head == null ? -1 : compareHeads();
+                    if (comparison < 0) {
+                        QualifiedName result = this.first.head;
+                        advance(this.first);
+                        return result;
+                    } else if (comparison > 0) {
+                        advance(this.second);
+                    } else {
+                        advanceBoth();
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /** Get the differences between an old and a new sequence of names.
+     *
+     * Where a name is removed along with every name in its subtree, a single REMOVED
+     * difference with subtree set is reported for the root of the subtree; similarly for
+     * added subtrees. Otherwise each added or removed name is reported individually.
+     * A subtree which has moved is reported as a removed subtree and an added subtree.
+     *
+     * @param before old sorted names
+     * @param after new sorted names
+     * @return sorted differences between before and after
+     */
+    public static Iterator<Difference> diff(Iterator<QualifiedName> before, Iterator<QualifiedName> after) {
+        return diff(before, after, PART_ORDER);
+    }
+
+    /** As diff(Iterator, Iterator), comparing parts with partOrder, which must agree with String.compareTo */
+    static Iterator<Difference> diff(Iterator<QualifiedName> before, Iterator<QualifiedName> after, Comparator<String> partOrder) {
+        return new Merge<Difference>(before, after, partOrder) {
+            @Override
+            Difference computeNext() {
+                while (this.first.head != null || this.second.head != null) {
+                    int comparison;
+                    if (this.first.head == null) {
+                        comparison = 1;
+                    } else if (this.second.head == null) {
+                        comparison = -1;
+                    } else {
+                        comparison = compareHeads();
+                    }
+                    if (comparison < 0) {
+                        return reportAndSkip(Difference.Type.REMOVED, this.first, this.second.head == null);
+                    } else if (comparison > 0) {
+                        return reportAndSkip(Difference.Type.ADDED, this.second, this.first.head == null);
+                    } else {
+                        advanceBoth();
+                    }
+                }
+                return null;
+            }
+
+            /** Report the head of one input, skipping its subtree if the other input has nothing within it */
+            private Difference reportAndSkip(Difference.Type type, Cursor cursor, boolean otherExhausted) {
+                QualifiedName name = cursor.head;
+                // The other head is the next name after this one in the other input, so it
+                // is the only name in the other input which could be within this subtree
+                boolean subtree = otherExhausted || shared < cursor.size;
+                if (subtree) skipSubtree(cursor); else advance(cursor);
+                return new Difference(type, name, subtree);
+            }
+        };
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator, Stream<?> first, Stream<?> second) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+            false
+        ).onClose(() -> { try { first.close(); } finally { second.close(); } });
+    }
+
+    /** Get all names in either input.
+     *
+     * @param first sorted names
+     * @param second sorted names
+     * @return sorted names in first or second
+     */
+    public static Stream<QualifiedName> union(Stream<QualifiedName> first, Stream<QualifiedName> second) {
+        return stream(union(first.iterator(), second.iterator()), first, second);
+    }
+
+    /** Get all names in both inputs.
+     *
+     * @param first sorted names
+     * @param second sorted names
+     * @return sorted names in both first and second
+     */
+    public static Stream<QualifiedName> intersection(Stream<QualifiedName> first, Stream<QualifiedName> second) {
+        return stream(intersection(first.iterator(), second.iterator()), first, second);
+    }
+
+    /** Get all names in the first input which are not in the second.
+     *
+     * @param first sorted names
+     * @param second sorted names
+     * @return sorted names in first but not in second
+     */
+    public static Stream<QualifiedName> difference(Stream<QualifiedName> first, Stream<QualifiedName> second) {
+        return stream(difference(first.iterator(), second.iterator()), first, second);
+    }
+
+    /** Get the differences between an old and a new sequence of names.
+     *
+     * @see #diff(Iterator, Iterator)
+     * @param before old sorted names
+     * @param after new sorted names
+     * @return sorted differences between before and after
+     */
+    public static Stream<Difference> diff(Stream<QualifiedName> before, Stream<QualifiedName> after) {
+        return stream(diff(before.iterator(), after.iterator()), before, after);
+    }
+}
@@ -0,0 +1,184 @@
+package com.softwareplumbers.common;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Assign qualified names to partitions so that whole subtrees land in the same partition.
+ *
+ * Names are partitioned on the stable fingerprint of their ancestor at a configured depth,
+ * so for depth 2 the names a.b, a.b.c and a.b.c.d always share a partition. Names shorter
+ * than the configured depth are partitioned on their own fingerprint.
+ *
+ * Names may be mapped either to a fixed number of partitions, using jump consistent hashing
+ * so that few names move when the number of partitions changes, or to the nodes of a
+ * consistent hash Ring.
+ */
+public class QualifiedNamePartitioner {
+
+    /** Depth of the subtree root on which names are partitioned */
+    public final int depth;
+
+    /** Create a partitioner.
+     *
+     * @param depth depth of the subtree root on which names are partitioned
+     */
+    public QualifiedNamePartitioner(int depth) {
+        if (depth < 0) throw new IllegalArgumentException("Depth must not be negative");
+        this.depth = depth;
+    }
+
+    /** Get the root of the subtree on which a name is partitioned.
+     *
+     * @param name name to partition
+     * @return the ancestor of name at the configured depth, or name itself if it is shorter
+     */
+    public QualifiedName subtree(QualifiedName name) {
+        return name.leftFromEnd(name.size() - depth);
+    }
+
+    /** Get the fingerprint on which a name is partitioned.
+     *
+     * @param name name to partition
+     * @return fingerprint of the subtree root for name
+     */
+    public long fingerprint(QualifiedName name) {
+        return subtree(name).fingerprint();
+    }
+
+    /** Map a fingerprint to one of a fixed number of partitions.
+     *
+     * Uses the jump consistent hash of Lamping and Veach.
+     *
+     * @param fingerprint fingerprint to map
+     * @param partitions number of partitions
+     * @return partition number between 0 and partitions-1
+     */
+    public static int partition(long fingerprint, int partitions) {
+        if (partitions <= 0) throw new IllegalArgumentException("Number of partitions must be positive");
+        long bucket = -1;
+        long jump = 0;
+        while (jump < partitions) {
+            bucket = jump;
+            fingerprint = fingerprint * 2862933555777941757L + 1;
+            jump = (long)((bucket + 1) * ((double)(1L << 31) / (double)((fingerprint >>> 33) + 1)));
+        }
+        return (int)bucket;
+    }
+
+    /** Map a name to one of a fixed number of partitions.
+     *
+     * @param name name to partition
+     * @param partitions number of partitions
+     * @return partition number between 0 and partitions-1
+     */
+    public int partition(QualifiedName name, int partitions) {
+        return partition(fingerprint(name), partitions);
+    }
+
+    /** Map a name to a node on a consistent hash ring.
+     *
+     * @param <T> type of node
+     * @param name name to partition
+     * @param ring ring of nodes
+     * @return the node owning the subtree containing name, or null if the ring is empty
+     */
+    public <T> T node(QualifiedName name, Ring<T> ring) {
+        return ring.get(fingerprint(name));
+    }
+
+    /** Consistent hash ring.
+     *
+     * Each node is placed on the ring at a number of points given by the fingerprints of
+     * the names {id, 0} to {id, replicas-1}. A fingerprint is owned by the node at the next
+     * point on the ring. Adding or removing a node only moves the fingerprints owned by
+     * that node. Lookups may run concurrently, but adding and removing nodes must be
+     * externally synchronized.
+     *
+     * @param <T> type of node
+     */
+    public static class Ring<T> {
+
+        private final int replicas;
+        private final Map<String,T> nodes = new LinkedHashMap<>();
+        private volatile Points points = new Points(new long[0], new Object[0]);
+
+        /** Immutable snapshot of the ring, sorted by point */
+        private static final class Points {
+            final long[] points;
+            final Object[] owners;
+            Points(long[] points, Object[] owners) { this.points = points; this.owners = owners; }
+        }
+
+        /** Create an empty ring.
+         *
+         * @param replicas number of points on the ring for each node
+         */
+        public Ring(int replicas) {
+            if (replicas <= 0) throw new IllegalArgumentException("Number of replicas must be positive");
+            this.replicas = replicas;
+        }
+
+        /** Add a node to the ring, replacing any existing node with the same id.
+         *
+         * @param id stable identifier of node
+         * @param node node to add
+         */
+        public void add(String id, T node) {
+            nodes.put(id, node);
+            rebuild();
+        }
+
+        /** Remove a node from the ring.
+         *
+         * @param id stable identifier of node
+         * @return the removed node, or null if there was no node with the given id
+         */
+        public T remove(String id) {
+            T removed = nodes.remove(id);
+            if (removed != null) rebuild();
+            return removed;
+        }
+
+        /** Get the number of nodes on the ring.
+         *
+         * @return number of nodes
+         */
+        public int size() {
+            return nodes.size();
+        }
+
+        /** Get the node which owns a fingerprint.
+         *
+         * @param fingerprint fingerprint to look up
+         * @return the owning node, or null if the ring is empty
+         */
+        @SuppressWarnings("unchecked")
+        public T get(long fingerprint) {
+            Points ring = points;
+            if (ring.points.length == 0) return null;
+            int index = Arrays.binarySearch(ring.points, fingerprint);
+            if (index < 0) index = -index - 1;
+            return (T)ring.owners[index == ring.points.length ? 0 : index];
+        }
+
+        private void rebuild() {
+            Map<Long,T> byPoint = new TreeMap<>();
+            for (Map.Entry<String,T> entry : nodes.entrySet()) {
+                QualifiedName base = QualifiedName.of(entry.getKey());
+                for (int replica = 0; replica < replicas; replica++) {
+                    byPoint.put(base.add(Integer.toString(replica)).fingerprint(), entry.getValue());
+                }
+            }
+            long[] newPoints = new long[byPoint.size()];
+            Object[] newOwners = new Object[byPoint.size()];
+            int index = 0;
+            for (Map.Entry<Long,T> entry : byPoint.entrySet()) {
+                newPoints[index] = entry.getKey();
+                newOwners[index++] = entry.getValue();
+            }
+            points = new Points(newPoints, newOwners);
+        }
+    }
+}
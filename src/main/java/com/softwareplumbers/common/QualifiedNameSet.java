@@ -0,0 +1,326 @@
+package com.softwareplumbers.common;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/** Compact immutable set of qualified names.
+ *
+ * Names are not held as QualifiedName objects. Instead, every distinct name and ancestor
+ * of a name is a node, and nodes are held in columns of primitive arrays: the index of
+ * each node's parent, the index of its part in a dictionary of distinct parts, and the
+ * index just past the end of its subtree. Together with a bit per node marking members,
+ * that is a little over 12 bytes per node. A QualifiedName is only created when a name
+ * is returned by the iterator.
+ *
+ * Nodes are stored in DEPTH_FIRST_ORDER, so iteration returns names in that order and
+ * the subtree under any prefix is a contiguous range of nodes. contains and subtree
+ * work directly on the arrays without creating any names, with a dictionary search and
+ * a binary search among siblings for each part of the name looked up. size counts the
+ * members of the range once, a word of the bit set at a time.
+ */
+public class QualifiedNameSet extends AbstractSet<QualifiedName> {
+
+    /** Node index of ROOT, which is not stored */
+    private static final int ROOT_NODE = -1;
+    /** Node index returned when a name is not present */
+    private static final int NOT_FOUND = -2;
+
+    /** Column storage shared by a set and all its subtree views */
+    private static final class Storage {
+        /** Distinct parts, sorted so that part ids are ordered as the parts are */
+        final String[] dictionary;
+        /** Parent node of each node, or ROOT_NODE */
+        final int[] parents;
+        /** Dictionary id of the part of each node */
+        final int[] parts;
+        /** Index after the last node in the subtree of each node */
+        final int[] ends;
+        /** Bit set of nodes which are members of the set */
+        final long[] members;
+        /** True if ROOT itself is a member */
+        final boolean containsRoot;
+
+        Storage(String[] dictionary, int[] parents, int[] parts, int[] ends, long[] members, boolean containsRoot) {
+            this.dictionary = dictionary;
+            this.parents = parents;
+            this.parts = parts;
+            this.ends = ends;
+            this.members = members;
+            this.containsRoot = containsRoot;
+        }
+
+        boolean isMember(int node) {
+            return (members[node >>> 6] & (1L << node)) != 0;
+        }
+
+        /** Find the child of a node with the given part, or NOT_FOUND */
+        int child(int parent, String part) {
+            int id = Arrays.binarySearch(dictionary, part);
+            if (id < 0) return NOT_FOUND;
+            // The children of parent follow it in part order, each followed by its subtree,
+            // so binary search the subtree; any node in it leads up to one of the children
+            int low = parent + 1;
+            int high = parent == ROOT_NODE ? parents.length : ends[parent];
+            while (low < high) {
+                int node = (low + high) >>> 1;
+                while (parents[node] != parent) node = parents[node];
+                if (parts[node] < id) low = ends[node];
+                else if (parts[node] > id) high = node;
+                else return node;
+            }
+            return NOT_FOUND;
+        }
+
+        /** Find the node for a name, ROOT_NODE for ROOT, or NOT_FOUND */
+        int find(QualifiedName name) {
+            if (name.isEmpty()) return ROOT_NODE;
+            int parent = find(name.parent);
+            return parent == NOT_FOUND ? NOT_FOUND : child(parent, name.part);
+        }
+
+        /** Count members in a range of nodes */
+        int countMembers(int from, int to) {
+            int count = 0;
+            for (int word = from >>> 6; word << 6 < to; word++) {
+                long bits = members[word];
+                if (word == from >>> 6) bits &= -1L << from;
+                if (word == (to - 1) >>> 6) bits &= -1L >>> -to;
+                count += Long.bitCount(bits);
+            }
+            return count;
+        }
+
+        /** Create the name for a node */
+        QualifiedName name(int node) {
+            return node == ROOT_NODE ? QualifiedName.ROOT : name(parents[node]).add(dictionary[parts[node]]);
+        }
+    }
+
+    private final Storage storage;
+    /** Root of this set; ROOT_NODE unless this is a subtree view */
+    private final int root;
+    /** First node in this set */
+    private final int from;
+    /** Node after the last in this set */
+    private final int to;
+    /** Number of names in this set, or -1 until first counted */
+    private int size = -1;
+
+    private QualifiedNameSet(Storage storage, int root, int from, int to) {
+        this.storage = storage;
+        this.root = root;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Growable int array used while building a set */
+    private static final class Column {
+        int[] values = new int[16];
+        int length;
+
+        void add(int value) {
+            if (length == values.length) values = Arrays.copyOf(values, length * 2);
+            values[length++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, length);
+        }
+    }
+
+    /** Create a set containing the given names.
+     *
+     * @param names names to include in the set
+     * @return a new set
+     */
+    public static QualifiedNameSet of(Iterable<QualifiedName> names) {
+        List<QualifiedName> sorted = new ArrayList<>();
+        Set<String> distinctParts = new HashSet<>();
+        for (QualifiedName name : names) {
+            sorted.add(name);
+            for (QualifiedName current = name; !current.isEmpty(); current = current.parent) distinctParts.add(current.part);
+        }
+        sorted.sort(QualifiedName.DEPTH_FIRST_ORDER);
+        String[] dictionary = distinctParts.toArray(new String[distinctParts.size()]);
+        Arrays.sort(dictionary);
+
+        Column parents = new Column();
+        Column parts = new Column();
+        Column ends = new Column();
+        Column memberNodes = new Column();
+        boolean containsRoot = false;
+        // Part ids and nodes of the path from ROOT to the last node added
+        Column pathParts = new Column();
+        Column pathNodes = new Column();
+        int[] nameParts = new int[0];
+
+        for (QualifiedName name : sorted) {
+            int size = name.size();
+            if (size == 0) {
+                containsRoot = true;
+                continue;
+            }
+            if (nameParts.length < size) nameParts = new int[size * 2];
+            int position = size;
+            for (QualifiedName current = name; !current.isEmpty(); current = current.parent) {
+                nameParts[--position] = Arrays.binarySearch(dictionary, current.part);
+            }
+            int shared = 0;
+            while (shared < pathParts.length && shared < size && pathParts.values[shared] == nameParts[shared]) shared++;
+            // Close subtrees which this name is not in
+            while (pathNodes.length > shared) {
+                ends.values[pathNodes.values[--pathNodes.length]] = parents.length;
+                pathParts.length--;
+            }
+            for (position = shared; position < size; position++) {
+                int node = parents.length;
+                parents.add(position == 0 ? ROOT_NODE : pathNodes.values[position - 1]);
+                parts.add(nameParts[position]);
+                ends.add(0);
+                pathNodes.add(node);
+                pathParts.add(nameParts[position]);
+            }
+            int node = pathNodes.values[size - 1];
+            if (memberNodes.length == 0 || memberNodes.values[memberNodes.length - 1] != node) memberNodes.add(node);
+        }
+        while (pathNodes.length > 0) ends.values[pathNodes.values[--pathNodes.length]] = parents.length;
+
+        long[] members = new long[(parents.length + 63) >>> 6];
+        for (int i = 0; i < memberNodes.length; i++) members[memberNodes.values[i] >>> 6] |= 1L << memberNodes.values[i];
+        Storage storage = new Storage(dictionary, parents.toArray(), parts.toArray(), ends.toArray(), members, containsRoot);
+        return new QualifiedNameSet(storage, ROOT_NODE, 0, storage.parents.length);
+    }
+
+    /** Check whether this set contains a name.
+     *
+     * @param object name to look for
+     * @return true if object is a QualifiedName in this set
+     */
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof QualifiedName)) return false;
+        int node = storage.find((QualifiedName)object);
+        if (node == ROOT_NODE) return root == ROOT_NODE && storage.containsRoot;
+        return node >= from && node < to && storage.isMember(node);
+    }
+
+    /** Get the number of names in this set.
+     *
+     * @return number of names
+     */
+    @Override
+    public int size() {
+        // Counted on first use, so that creating a subtree view does not scan it
+        if (size < 0) size = storage.countMembers(from, to) + (root == ROOT_NODE && storage.containsRoot ? 1 : 0);
+        return size;
+    }
+
+    /** Check whether this set is empty.
+     *
+     * @return true if this set contains no names
+     */
+    @Override
+    public boolean isEmpty() {
+        // Every node without a name in the set is an ancestor of one which follows it
+        return from == to && !(root == ROOT_NODE && storage.containsRoot);
+    }
+
+    /** Get the names in this set which start with the given prefix.
+     *
+     * The result is a view sharing the storage of this set, and is created without
+     * copying or creating any names. If every name in this set starts with prefix, the
+     * result is this set.
+     *
+     * @param prefix prefix of names to return
+     * @return set of names in this set which start with prefix
+     */
+    public QualifiedNameSet subtree(QualifiedName prefix) {
+        int node = storage.find(prefix);
+        if (node == ROOT_NODE) return this;
+        // Every name in a view of the subtree of root already starts with any ancestor of root
+        if (root >= 0 && node >= 0 && node <= root && storage.ends[node] >= to) return this;
+        if (node == NOT_FOUND || node < from || node >= to) return new QualifiedNameSet(storage, NOT_FOUND, 0, 0);
+        return new QualifiedNameSet(storage, node, node, storage.ends[node]);
+    }
+
+    /** Estimate the memory used by this set.
+     *
+     * Includes the arrays and dictionary strings, which are shared with any subtree
+     * views, assuming a 64 bit JVM with compressed references. Strings are assumed to
+     * need two bytes per character.
+     *
+     * @return approximate size in bytes
+     */
+    public long memoryFootprint() {
+        long bytes = 64;
+        bytes += 16 + 4L * storage.parents.length;
+        bytes += 16 + 4L * storage.parts.length;
+        bytes += 16 + 4L * storage.ends.length;
+        bytes += 16 + 8L * storage.members.length;
+        bytes += 16 + 4L * storage.dictionary.length;
+        for (String part : storage.dictionary) bytes += 24 + ((16 + 2L * part.length() + 7) & ~7);
+        return bytes;
+    }
+
+    /** Iterate over the names in this set in DEPTH_FIRST_ORDER.
+     *
+     * Names which share a parent share the same parent object.
+     *
+     * @return iterator over names
+     */
+    @Override
+    public Iterator<QualifiedName> iterator() {
+        return new Iterator<QualifiedName>() {
+            /** Nodes and names on the path to the current node */
+            int[] pathNodes = new int[8];
+            QualifiedName[] pathNames = new QualifiedName[8];
+            int depth = 1;
+            int node = from;
+            boolean rootPending = root == ROOT_NODE && storage.containsRoot;
+
+            {
+                if (from < to) {
+                    pathNodes[0] = storage.parents[from];
+                    pathNames[0] = storage.name(pathNodes[0]);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                // Every node without a name in the set is an ancestor of one which follows it
+                return rootPending || node < to;
+            }
+
+            @Override
+            public QualifiedName next() {
+                if (rootPending) {
+                    rootPending = false;
+                    return QualifiedName.ROOT;
+                }
+                if (node >= to) throw new NoSuchElementException();
+                QualifiedName result = null;
+                // Walk forward to the next member, keeping the path to each node up to date
+                while (result == null) {
+                    int parent = storage.parents[node];
+                    while (pathNodes[depth - 1] != parent) depth--;
+                    QualifiedName name = pathNames[depth - 1].add(storage.dictionary[storage.parts[node]]);
+                    if (depth == pathNodes.length) {
+                        pathNodes = Arrays.copyOf(pathNodes, depth * 2);
+                        pathNames = Arrays.copyOf(pathNames, depth * 2);
+                    }
+                    pathNodes[depth] = node;
+                    pathNames[depth++] = name;
+                    if (storage.isMember(node)) result = name;
+                    node++;
+                }
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.softwareplumbers.common;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Check that common operations do not allocate more memory than expected.
+ *
+ * Each operation is run repeatedly and the bytes allocated by the current thread are
+ * divided by the number of runs. Budgets are upper bounds in bytes per operation on a
+ * 64 bit JVM, set from the allocation measured on Java 17 with the JIT disabled (escape
+ * analysis can only reduce allocation) plus about 25%, rounded up to a multiple of 8, for
+ * differences in object layout and library internals between JVMs. Budgets should be
+ * kept that tight, so that a regression fails the test. An operation whose budget is
+ * zero must not allocate at all.
+ */
+public class QualifiedNameAllocationTest {
+
+    private static final int WARMUP = 20000;
+    private static final int RUNS = 20000;
+
+    private static final QualifiedName NAME = QualifiedName.of("com","softwareplumbers","common","qualified","name");
+    private static final QualifiedName SAME_NAME = QualifiedName.of("com","softwareplumbers","common","qualified","name");
+    private static final QualifiedName PREFIX = QualifiedName.of("com","softwareplumbers","common");
+    private static final QualifiedName PATTERN = QualifiedName.of("c.*","soft.*","common","q.*","name");
+    private static final String JOINED = "com/softwareplumbers/common/qualified/name";
+    private static final String POINTER = "/com/softwareplumbers/common/qualified/name";
+
+    @FunctionalInterface
+    private interface Operation {
+        long run();
+    }
+
+    private com.sun.management.ThreadMXBean threads;
+
+    /** Sink for operation results, so that operations cannot be optimized away */
+    private long sink;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long bytesPerRun(Operation operation) {
+        for (int i = 0; i < WARMUP; i++) sink += operation.run();
+        long start = allocatedBytes();
+        for (int i = 0; i < RUNS; i++) sink += operation.run();
+        return (allocatedBytes() - start) / RUNS;
+    }
+
+    private void assertBudget(String name, long budget, Operation operation) {
+        long measured = bytesPerRun(operation);
+        assertTrue(name + " allocated " + measured + " bytes, budget is " + budget, measured <= budget);
+    }
+
+    @Test
+    public void testParse() {
+        assertBudget("parse", 13704, () -> QualifiedName.parse(JOINED, "/").size());
+    }
+
+    @Test
+    public void testParseJsonPointer() {
+        assertBudget("parse JSON pointer", 480, () -> QualifiedName.parse(POINTER, QualifiedNameFormat.JSON_POINTER).size());
+    }
+
+    @Test
+    public void testJoin() {
+        assertBudget("join", 1024, () -> NAME.join("/").length());
+    }
+
+    @Test
+    public void testJoinJsonPointer() {
+        assertBudget("join JSON pointer", 480, () -> NAME.join(QualifiedNameFormat.JSON_POINTER).length());
+    }
+
+    @Test
+    public void testEquals() {
+        assertBudget("equals", 0, () -> NAME.equals(SAME_NAME) ? 1 : 0);
+    }
+
+    @Test
+    public void testHashCode() {
+        assertBudget("hashCode", 0, () -> NAME.hashCode());
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertBudget("fingerprint", 0, () -> NAME.fingerprint());
+    }
+
+    @Test
+    public void testCompare() {
+        assertBudget("compareTo", 0, () -> NAME.compareTo(SAME_NAME));
+        assertBudget("DEPTH_FIRST_ORDER", 0, () -> QualifiedName.DEPTH_FIRST_ORDER.compare(NAME, SAME_NAME));
+    }
+
+    @Test
+    public void testIteration() {
+        assertBudget("iterator", 112, () -> {
+            long length = 0;
+            for (Iterator<String> parts = NAME.iterator(); parts.hasNext();) length += parts.next().length();
+            return length;
+        });
+    }
+
+    @Test
+    public void testReverseIteration() {
+        assertBudget("reverseIterator", 24, () -> {
+            long length = 0;
+            for (Iterator<String> parts = NAME.reverseIterator(); parts.hasNext();) length += parts.next().length();
+            return length;
+        });
+    }
+
+    @Test
+    public void testStartsWith() {
+        assertBudget("startsWith", 0, () -> NAME.startsWith(PREFIX) ? 1 : 0);
+    }
+
+    @Test
+    public void testGet() {
+        assertBudget("get", 0, () -> NAME.get(1).length());
+    }
+
+    @Test
+    public void testIndexOf() {
+        assertBudget("indexOf", 0, () -> NAME.indexOf(part -> part.startsWith("q")));
+    }
+
+    @Test
+    public void testMatches() {
+        assertBudget("matches", 6912, () -> NAME.matches(PATTERN, true) ? 1 : 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.softwareplumbers.common;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class QualifiedNameFormatTest {
+
+    @Test
+    public void testJsonPointerJoin() {
+        assertEquals("/a/b/c", QualifiedName.of("a","b","c").join(QualifiedNameFormat.JSON_POINTER));
+        assertEquals("/a~1b/m~0n/", QualifiedName.of("a/b","m~n","").join(QualifiedNameFormat.JSON_POINTER));
+        assertEquals("/~01", QualifiedName.of("~1").join(QualifiedNameFormat.JSON_POINTER));
+        assertEquals("", QualifiedName.ROOT.join(QualifiedNameFormat.JSON_POINTER));
+    }
+
+    @Test
+    public void testJsonPointerParse() {
+        assertEquals(QualifiedName.of("a","b","c"), QualifiedName.parse("/a/b/c", QualifiedNameFormat.JSON_POINTER));
+        assertEquals(QualifiedName.of("a/b","m~n",""), QualifiedName.parse("/a~1b/m~0n/", QualifiedNameFormat.JSON_POINTER));
+        assertEquals(QualifiedName.of("~1"), QualifiedName.parse("/~01", QualifiedNameFormat.JSON_POINTER));
+        assertEquals(QualifiedName.of(""), QualifiedName.parse("/", QualifiedNameFormat.JSON_POINTER));
+        assertEquals(QualifiedName.ROOT, QualifiedName.parse("", QualifiedNameFormat.JSON_POINTER));
+        assertEquals(QualifiedName.of("x","a","b"), QualifiedName.of("x").addParsed("/a/b", QualifiedNameFormat.JSON_POINTER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJsonPointerParseNoLeadingSeparator() {
+        QualifiedName.parse("a/b", QualifiedNameFormat.JSON_POINTER);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJsonPointerParseBadEscape() {
+        QualifiedName.parse("/a~2b", QualifiedNameFormat.JSON_POINTER);
+    }
+
+    @Test
+    public void testUriPathJoin() {
+        assertEquals("a/b/c", QualifiedName.of("a","b","c").join(QualifiedNameFormat.URI_PATH));
+        assertEquals("a%20b/c%2Fd/e%25f", QualifiedName.of("a b","c/d","e%f").join(QualifiedNameFormat.URI_PATH));
+        assertEquals("caf%C3%A9/%E2%82%AC/%F0%9F%98%80", QualifiedName.of("caf\u00e9","\u20ac","\ud83d\ude00").join(QualifiedNameFormat.URI_PATH));
+        assertEquals("a-._~!$&'()*+,;=:@", QualifiedName.of("a-._~!$&'()*+,;=:@").join(QualifiedNameFormat.URI_PATH));
+        assertEquals("", QualifiedName.ROOT.join(QualifiedNameFormat.URI_PATH));
+    }
+
+    @Test
+    public void testUriPathParse() {
+        assertEquals(QualifiedName.of("a","b","c"), QualifiedName.parse("a/b/c", QualifiedNameFormat.URI_PATH));
+        assertEquals(QualifiedName.of("a","b","c"), QualifiedName.parse("/a/b/c/", QualifiedNameFormat.URI_PATH));
+        assertEquals(QualifiedName.of("a b","c/d","e%f"), QualifiedName.parse("a%20b/c%2fd/e%25f", QualifiedNameFormat.URI_PATH));
+        assertEquals(QualifiedName.of("caf\u00e9","\ud83d\ude00"), QualifiedName.parse("caf%C3%A9/%F0%9F%98%80", QualifiedNameFormat.URI_PATH));
+        assertEquals(QualifiedName.of("a+b"), QualifiedName.parse("a+b", QualifiedNameFormat.URI_PATH));
+        assertEquals(QualifiedName.ROOT, QualifiedName.parse("", QualifiedNameFormat.URI_PATH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUriPathParseBadEscape() {
+        QualifiedName.parse("a/b%2", QualifiedNameFormat.URI_PATH);
+    }
+
+    @Test
+    public void testRoundtrip() {
+        QualifiedName HORRIBLE = QualifiedName.of("a","/b","c~","%d/","e f","\u00e9\ud83d\ude00");
+        assertEquals(HORRIBLE, QualifiedName.parse(HORRIBLE.join(QualifiedNameFormat.JSON_POINTER), QualifiedNameFormat.JSON_POINTER));
+        assertEquals(HORRIBLE, QualifiedName.parse(HORRIBLE.join(QualifiedNameFormat.URI_PATH), QualifiedNameFormat.URI_PATH));
+    }
+
+    @Test
+    public void testRoundtripEmptyParts() {
+        QualifiedName LEADING_EMPTY = QualifiedName.of("","b");
+        QualifiedName INNER_EMPTY = QualifiedName.of("a","","b");
+        assertEquals("//b", LEADING_EMPTY.join(QualifiedNameFormat.JSON_POINTER));
+        assertEquals(LEADING_EMPTY, QualifiedName.parse(LEADING_EMPTY.join(QualifiedNameFormat.JSON_POINTER), QualifiedNameFormat.JSON_POINTER));
+        assertEquals(INNER_EMPTY, QualifiedName.parse(INNER_EMPTY.join(QualifiedNameFormat.JSON_POINTER), QualifiedNameFormat.JSON_POINTER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUriPathJoinLeadingEmptyPart() {
+        QualifiedName.of("","b").join(QualifiedNameFormat.URI_PATH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUriPathJoinInnerEmptyPart() {
+        QualifiedName.of("a","","b").join(QualifiedNameFormat.URI_PATH);
+    }
+}
@@ -0,0 +1,114 @@
+package com.softwareplumbers.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+
+import org.junit.Test;
+
+public class QualifiedNameJsonResolverTest {
+
+    private static final String DOCUMENT =
+        "{ \"x\": { \"a\": \"A\", \"b\": \"B\", \"big\": [ { \"deep\": [1, 2, 3] }, { \"deep\": [4] } ] }," +
+        "  \"y\": { \"c\": \"C\", \"d\": { \"e\": \"E\" } }," +
+        "  \"z\": [ \"z0\", { \"f\": \"F\" }, [ true, null ] ] }";
+
+    private static JsonParser parser(String document) {
+        return Json.createParser(new StringReader(document));
+    }
+
+    @Test
+    public void testResolveSingleName() {
+        assertEquals(Json.createValue("B"), QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("x","b")));
+        assertEquals(Json.createValue("E"), QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("y","d","e")));
+        assertNull(QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("y","a")));
+        assertNull(QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("y","c","x")));
+    }
+
+    @Test
+    public void testResolveArrayIndex() {
+        assertEquals(Json.createValue("z0"), QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("z","0")));
+        assertEquals(Json.createValue("F"), QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("z","1","f")));
+        assertEquals(JsonValue.NULL, QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("z","2","1")));
+        assertEquals(Json.createValue(4), QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("x","big","1","deep","0")));
+        assertNull(QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("z","3")));
+        assertNull(QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.of("z","01")));
+    }
+
+    @Test
+    public void testResolveMatchesApply() {
+        JsonObject tree = Json.createReader(new StringReader(DOCUMENT)).readObject();
+        List<QualifiedName> names = Arrays.asList(
+            QualifiedName.of("x","a"),
+            QualifiedName.of("x"),
+            QualifiedName.of("y","d"),
+            QualifiedName.of("y","d","e"),
+            QualifiedName.of("y","q"),
+            QualifiedName.of("z")
+        );
+        Map<QualifiedName,JsonValue> results = new QualifiedNameJsonResolver(names).resolve(new StringReader(DOCUMENT));
+        for (QualifiedName name : names) {
+            assertEquals(name.<JsonValue>apply(tree), results.get(name));
+        }
+        assertFalse(results.containsKey(QualifiedName.of("y","q")));
+        assertEquals(5, results.size());
+    }
+
+    @Test
+    public void testResolveRoot() {
+        JsonObject tree = Json.createReader(new StringReader(DOCUMENT)).readObject();
+        assertEquals(tree, QualifiedNameJsonResolver.resolve(parser(DOCUMENT), QualifiedName.ROOT));
+    }
+
+    @Test
+    public void testResolveNothing() {
+        assertTrue(new QualifiedNameJsonResolver(Collections.emptyList()).resolve(parser(DOCUMENT)).isEmpty());
+    }
+
+    @Test
+    public void testDuplicateKeysLastWins() {
+        Map<QualifiedName,JsonValue> results = new QualifiedNameJsonResolver(Arrays.asList(QualifiedName.of("a"), QualifiedName.of("b"))).resolve(new StringReader("{\"a\":1,\"a\":2,\"b\":3}"));
+        assertEquals(Json.createValue(2), results.get(QualifiedName.of("a")));
+        assertEquals(Json.createValue(3), results.get(QualifiedName.of("b")));
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testDuplicateKeysMatchApply() {
+        // A later duplicate replaces the whole earlier value, including names resolved within it
+        String document = "{ \"x\": { \"p\": 1, \"r\": { \"s\": 5 } }, \"y\": 0, \"x\": { \"q\": 2, \"r\": { \"s\": 6 } } }";
+        JsonObject tree = Json.createReader(new StringReader(document)).readObject();
+        List<QualifiedName> names = Arrays.asList(
+            QualifiedName.of("x","p"),
+            QualifiedName.of("x","q"),
+            QualifiedName.of("x","r"),
+            QualifiedName.of("x","r","s"),
+            QualifiedName.of("y")
+        );
+        Map<QualifiedName,JsonValue> results = new QualifiedNameJsonResolver(names).resolve(new StringReader(document));
+        for (QualifiedName name : names) {
+            assertEquals(name.<JsonValue>apply(tree), results.get(name));
+        }
+        assertFalse(results.containsKey(QualifiedName.of("x","p")));
+        assertEquals(4, results.size());
+    }
+
+    @Test
+    public void testResolverIsReusable() {
+        QualifiedNameJsonResolver resolver = new QualifiedNameJsonResolver(Collections.singleton(QualifiedName.of("k")));
+        assertEquals(Json.createValue("v1"), resolver.resolve(new StringReader("{\"k\":\"v1\"}")).get(QualifiedName.of("k")));
+        assertEquals(Json.createValue("v2"), resolver.resolve(new StringReader("{\"j\":{\"k\":0},\"k\":\"v2\"}")).get(QualifiedName.of("k")));
+    }
+}
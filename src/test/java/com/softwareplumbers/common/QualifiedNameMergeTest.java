@@ -0,0 +1,230 @@
+package com.softwareplumbers.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.softwareplumbers.common.QualifiedNameMerge.Difference;
+
+public class QualifiedNameMergeTest {
+
+    private static List<QualifiedName> sorted(String... names) {
+        TreeSet<QualifiedName> result = new TreeSet<>(QualifiedName.DEPTH_FIRST_ORDER);
+        for (String name : names) result.add(QualifiedName.parse(name, "/"));
+        return new ArrayList<>(result);
+    }
+
+    private static <T> List<T> list(Iterator<T> iterator) {
+        List<T> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+
+    /** Random tree of names, where each name is present with the given probability */
+    private static List<QualifiedName> randomTree(Random random, double density) {
+        List<QualifiedName> result = new ArrayList<>();
+        addRandomSubtree(random, density, QualifiedName.ROOT, 0, result);
+        result.sort(QualifiedName.DEPTH_FIRST_ORDER);
+        return result;
+    }
+
+    private static void addRandomSubtree(Random random, double density, QualifiedName parent, int depth, List<QualifiedName> result) {
+        if (depth == 4) return;
+        for (int i = 0; i < 4; i++) {
+            if (random.nextDouble() < density) {
+                // Copy the parts so that names in different trees never share objects
+                QualifiedName child = QualifiedName.ROOT.addAll(parent).add(Integer.toString(i));
+                result.add(child);
+                addRandomSubtree(random, density, child, depth + 1, result);
+            }
+        }
+    }
+
+    @Test
+    public void testUnion() {
+        assertEquals(
+            sorted("a", "a/b", "a/b/c", "a/d", "b", "c/a"),
+            list(QualifiedNameMerge.union(sorted("a", "a/b/c", "b").iterator(), sorted("a", "a/b", "a/d", "c/a").iterator()))
+        );
+    }
+
+    @Test
+    public void testIntersection() {
+        assertEquals(
+            sorted("a", "a/b/c"),
+            list(QualifiedNameMerge.intersection(sorted("a", "a/b/c", "b").iterator(), sorted("a", "a/b", "a/b/c", "c/a").iterator()))
+        );
+    }
+
+    @Test
+    public void testDifference() {
+        assertEquals(
+            sorted("b"),
+            list(QualifiedNameMerge.difference(sorted("a", "a/b/c", "b").iterator(), sorted("a", "a/b", "a/b/c", "c/a").iterator()))
+        );
+    }
+
+    @Test
+    public void testDiff() {
+        List<QualifiedName> before = sorted("a", "a/b", "a/b/c", "a/b/d", "a/e", "x", "x/y", "x/y/z");
+        List<QualifiedName> after = sorted("a", "a/e", "a/e/f", "a/e/f/g", "x/y", "x/y/z", "z", "z/b");
+        assertEquals(
+            Arrays.asList(
+                new Difference(Difference.Type.REMOVED, QualifiedName.of("a","b"), true),
+                new Difference(Difference.Type.ADDED, QualifiedName.of("a","e","f"), true),
+                new Difference(Difference.Type.REMOVED, QualifiedName.of("x"), false),
+                new Difference(Difference.Type.ADDED, QualifiedName.of("z"), true)
+            ),
+            list(QualifiedNameMerge.diff(before.iterator(), after.iterator()))
+        );
+    }
+
+    @Test
+    public void testDiffMovedSubtree() {
+        List<QualifiedName> before = sorted("docs", "docs/old", "docs/old/1", "docs/old/2");
+        List<QualifiedName> after = sorted("docs", "docs/new", "docs/new/1", "docs/new/2");
+        assertEquals(
+            Arrays.asList(
+                new Difference(Difference.Type.ADDED, QualifiedName.of("docs","new"), true),
+                new Difference(Difference.Type.REMOVED, QualifiedName.of("docs","old"), true)
+            ),
+            list(QualifiedNameMerge.diff(before.iterator(), after.iterator()))
+        );
+    }
+
+    @Test
+    public void testRandomAgainstSets() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<QualifiedName> first = randomTree(random, 0.6);
+            List<QualifiedName> second = randomTree(random, 0.6);
+
+            TreeSet<QualifiedName> union = new TreeSet<>(QualifiedName.DEPTH_FIRST_ORDER);
+            union.addAll(first);
+            union.addAll(second);
+            assertEquals(new ArrayList<>(union), list(QualifiedNameMerge.union(first.iterator(), second.iterator())));
+
+            List<QualifiedName> intersection = new ArrayList<>(first);
+            intersection.retainAll(second);
+            assertEquals(intersection, list(QualifiedNameMerge.intersection(first.iterator(), second.iterator())));
+
+            List<QualifiedName> difference = new ArrayList<>(first);
+            difference.removeAll(second);
+            assertEquals(difference, list(QualifiedNameMerge.difference(first.iterator(), second.iterator())));
+
+            List<QualifiedName> added = new ArrayList<>(second);
+            added.removeAll(first);
+            List<QualifiedName> reportedRemoved = new ArrayList<>();
+            List<QualifiedName> reportedAdded = new ArrayList<>();
+            for (Difference entry : list(QualifiedNameMerge.diff(first.iterator(), second.iterator()))) {
+                boolean removed = entry.type == Difference.Type.REMOVED;
+                List<QualifiedName> reported = removed ? reportedRemoved : reportedAdded;
+                List<QualifiedName> source = removed ? first : second;
+                List<QualifiedName> other = removed ? second : first;
+                if (entry.subtree) {
+                    for (QualifiedName name : other) assertFalse(name.startsWith(entry.name));
+                    for (QualifiedName name : source) if (name.startsWith(entry.name)) reported.add(name);
+                } else {
+                    assertTrue(other.stream().anyMatch(name -> name.startsWith(entry.name)));
+                    reported.add(entry.name);
+                }
+            }
+            assertEquals(difference, reportedRemoved);
+            assertEquals(added, reportedAdded);
+        }
+    }
+
+    @Test
+    public void testStreams() {
+        try (Stream<QualifiedName> union = QualifiedNameMerge.union(sorted("a", "c").stream(), sorted("b").stream())) {
+            assertEquals(sorted("a", "b", "c"), union.collect(Collectors.toList()));
+        }
+        assertEquals(
+            Arrays.asList(new Difference(Difference.Type.ADDED, QualifiedName.of("b"), true)),
+            QualifiedNameMerge.diff(sorted("a").stream(), sorted("a", "b", "b/c").stream()).collect(Collectors.toList())
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedInput() {
+        list(QualifiedNameMerge.union(Arrays.asList(QualifiedName.of("b"), QualifiedName.of("a")).iterator(), sorted("a").iterator()));
+    }
+
+    /** Part order which counts the comparisons made */
+    private static class CountingOrder implements Comparator<String> {
+        long comparisons;
+
+        @Override
+        public int compare(String first, String second) {
+            comparisons++;
+            return first.compareTo(second);
+        }
+    }
+
+    /** Listing of files under a deep common prefix.
+     *
+     * Each listing is parsed separately, so no part objects are shared between listings,
+     * but names within a listing share their parents.
+     */
+    private static List<QualifiedName> listing(int projects, int skipProject, int files, int firstFile, int fileStep) {
+        List<QualifiedName> result = new ArrayList<>();
+        QualifiedName base = QualifiedName.parse("org/dept/team/area", "/");
+        for (int project = 0; project < projects; project++) {
+            if (project == skipProject) continue;
+            QualifiedName projectName = base.add("p" + (1000 + project));
+            result.add(projectName);
+            for (int file = firstFile; file < files; file += fileStep) result.add(projectName.add("f" + (1000 + file)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testPartComparisonsOnDiff() {
+        List<QualifiedName> before = listing(100, 50, 10, 0, 1);
+        List<QualifiedName> after = listing(100, 20, 10, 0, 1);
+        CountingOrder order = new CountingOrder();
+        assertEquals(
+            Arrays.asList(
+                new Difference(Difference.Type.REMOVED, QualifiedName.of("org","dept","team","area","p1020"), true),
+                new Difference(Difference.Type.ADDED, QualifiedName.of("org","dept","team","area","p1050"), true)
+            ),
+            list(QualifiedNameMerge.diff(before.iterator(), after.iterator(), order))
+        );
+        // Each name is compared with its predecessor in the same input, where only the last
+        // part differs, and with the other input from the depth at which the heads part
+        int names = before.size() + after.size();
+        assertTrue(order.comparisons + " comparisons", order.comparisons <= 2L * names);
+    }
+
+    @Test
+    public void testPartComparisonsOnInterleavedInputs() {
+        List<QualifiedName> even = listing(20, -1, 100, 0, 2);
+        List<QualifiedName> odd = listing(20, -1, 100, 1, 2);
+        TreeSet<QualifiedName> expected = new TreeSet<>(QualifiedName.DEPTH_FIRST_ORDER);
+        expected.addAll(even);
+        expected.addAll(odd);
+        CountingOrder order = new CountingOrder();
+        assertEquals(new ArrayList<>(expected), list(QualifiedNameMerge.union(even.iterator(), odd.iterator(), order)));
+        // Comparing heads from ROOT would cost six part comparisons per name
+        int names = even.size() + odd.size();
+        assertTrue(order.comparisons + " comparisons", order.comparisons <= 2L * names);
+
+        List<QualifiedName> evenFiles = new ArrayList<>(even);
+        evenFiles.removeAll(odd);
+        order = new CountingOrder();
+        assertEquals(evenFiles, list(QualifiedNameMerge.difference(even.iterator(), odd.iterator(), order)));
+        assertTrue(order.comparisons + " comparisons", order.comparisons <= 2L * names);
+    }
+}
@@ -0,0 +1,113 @@
+package com.softwareplumbers.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class QualifiedNamePartitionerTest {
+
+    @Test
+    public void testFingerprintIsStable() {
+        // Fingerprints may be persisted, so these values must never change
+        assertEquals(QualifiedName.ROOT_FINGERPRINT, QualifiedName.ROOT.fingerprint());
+        assertEquals(FINGERPRINT_A, QualifiedName.of("a").fingerprint());
+        assertEquals(FINGERPRINT_ABC, QualifiedName.of("a","b","c").fingerprint());
+    }
+
+    private static final long FINGERPRINT_A = -131554897428421330L;
+    private static final long FINGERPRINT_ABC = -1708907228893389328L;
+
+    @Test
+    public void testFingerprintDistinguishesParts() {
+        assertNotEquals(QualifiedName.of("ab","c").fingerprint(), QualifiedName.of("a","bc").fingerprint());
+        assertNotEquals(QualifiedName.of("a","b").fingerprint(), QualifiedName.of("b","a").fingerprint());
+        assertNotEquals(QualifiedName.of("a","").fingerprint(), QualifiedName.of("a").fingerprint());
+        assertEquals(QualifiedName.of("a","b").fingerprint(), QualifiedName.parse("a/b", "/").fingerprint());
+    }
+
+    @Test
+    public void testPrefixFingerprints() {
+        QualifiedName ABC = QualifiedName.of("a","b","c");
+        long[] expected = { ABC.left(1).fingerprint(), ABC.left(2).fingerprint(), ABC.fingerprint() };
+        assertArrayEquals(expected, ABC.prefixFingerprints());
+        assertEquals(ABC.fingerprint(), QualifiedName.fingerprint(QualifiedName.of("a","b").fingerprint(), "c"));
+        assertEquals(0, QualifiedName.ROOT.prefixFingerprints().length);
+    }
+
+    @Test
+    public void testSubtree() {
+        QualifiedNamePartitioner partitioner = new QualifiedNamePartitioner(2);
+        assertEquals(QualifiedName.of("a","b"), partitioner.subtree(QualifiedName.of("a","b","c","d")));
+        assertEquals(QualifiedName.of("a","b"), partitioner.subtree(QualifiedName.of("a","b")));
+        assertEquals(QualifiedName.of("a"), partitioner.subtree(QualifiedName.of("a")));
+        assertEquals(QualifiedName.ROOT, new QualifiedNamePartitioner(0).subtree(QualifiedName.of("a")));
+    }
+
+    @Test
+    public void testPartitionKeepsSubtreeTogether() {
+        QualifiedNamePartitioner partitioner = new QualifiedNamePartitioner(2);
+        int partition = partitioner.partition(QualifiedName.of("a","b"), 16);
+        assertEquals(partition, partitioner.partition(QualifiedName.of("a","b","c"), 16));
+        assertEquals(partition, partitioner.partition(QualifiedName.of("a","b","x","y","z"), 16));
+    }
+
+    @Test
+    public void testPartitionDistribution() {
+        QualifiedNamePartitioner partitioner = new QualifiedNamePartitioner(1);
+        int[] counts = new int[8];
+        for (int i = 0; i < 8000; i++) {
+            int partition = partitioner.partition(QualifiedName.of("name" + i, "x"), 8);
+            assertTrue(partition >= 0 && partition < 8);
+            counts[partition]++;
+        }
+        for (int count : counts) assertTrue(count > 800 && count < 1200);
+    }
+
+    @Test
+    public void testPartitionMovesFewNamesWhenGrowing() {
+        QualifiedNamePartitioner partitioner = new QualifiedNamePartitioner(1);
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            QualifiedName name = QualifiedName.of("name" + i);
+            int before = partitioner.partition(name, 10);
+            int after = partitioner.partition(name, 11);
+            if (before != after) {
+                assertEquals(10, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 500 && moved < 1400);
+    }
+
+    @Test
+    public void testRing() {
+        QualifiedNamePartitioner partitioner = new QualifiedNamePartitioner(1);
+        QualifiedNamePartitioner.Ring<String> ring = new QualifiedNamePartitioner.Ring<>(64);
+        assertNull(partitioner.node(QualifiedName.of("a"), ring));
+        ring.add("n1", "node1");
+        ring.add("n2", "node2");
+        ring.add("n3", "node3");
+        assertEquals(3, ring.size());
+
+        Map<QualifiedName,String> before = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            QualifiedName name = QualifiedName.of("name" + i, "child");
+            before.put(name, partitioner.node(name, ring));
+            assertEquals(before.get(name), partitioner.node(name.leftFromEnd(1), ring));
+        }
+
+        assertEquals("node2", ring.remove("n2"));
+        for (Map.Entry<QualifiedName,String> entry : before.entrySet()) {
+            String after = partitioner.node(entry.getKey(), ring);
+            if (!entry.getValue().equals("node2")) assertEquals(entry.getValue(), after);
+            else assertNotEquals("node2", after);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.softwareplumbers.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class QualifiedNameSetTest {
+
+    private static final List<QualifiedName> NAMES = Arrays.asList(
+        QualifiedName.of("b"),
+        QualifiedName.of("a","b","c"),
+        QualifiedName.of("a"),
+        QualifiedName.of("a","c"),
+        QualifiedName.of("x","y","z"),
+        QualifiedName.of("a","b","d"),
+        QualifiedName.of("a","c"),
+        QualifiedName.of("b","a")
+    );
+
+    private static List<QualifiedName> sorted(Iterable<QualifiedName> names) {
+        TreeSet<QualifiedName> result = new TreeSet<>(QualifiedName.DEPTH_FIRST_ORDER);
+        for (QualifiedName name : names) result.add(name);
+        return new ArrayList<>(result);
+    }
+
+    @Test
+    public void testContains() {
+        QualifiedNameSet set = QualifiedNameSet.of(NAMES);
+        for (QualifiedName name : NAMES) assertTrue(set.contains(name));
+        assertFalse(set.contains(QualifiedName.of("a","b")));
+        assertFalse(set.contains(QualifiedName.of("x","y")));
+        assertFalse(set.contains(QualifiedName.of("x","y","z","w")));
+        assertFalse(set.contains(QualifiedName.of("c")));
+        assertFalse(set.contains(QualifiedName.of("c","a")));
+        assertFalse(set.contains(QualifiedName.ROOT));
+        assertFalse(set.contains("a"));
+        assertEquals(7, set.size());
+    }
+
+    @Test
+    public void testIterationIsSorted() {
+        QualifiedNameSet set = QualifiedNameSet.of(NAMES);
+        assertEquals(sorted(NAMES), new ArrayList<>(set));
+    }
+
+    @Test
+    public void testIterationSharesParents() {
+        Iterator<QualifiedName> names = QualifiedNameSet.of(NAMES).iterator();
+        names.next();
+        QualifiedName abc = names.next();
+        QualifiedName abd = names.next();
+        assertEquals(QualifiedName.of("a","b","d"), abd);
+        assertSame(abc.parent, abd.parent);
+    }
+
+    @Test
+    public void testRoot() {
+        QualifiedNameSet set = QualifiedNameSet.of(Arrays.asList(QualifiedName.ROOT, QualifiedName.of("a")));
+        assertTrue(set.contains(QualifiedName.ROOT));
+        assertEquals(Arrays.asList(QualifiedName.ROOT, QualifiedName.of("a")), new ArrayList<>(set));
+        assertEquals(2, set.size());
+        assertFalse(set.subtree(QualifiedName.of("a")).contains(QualifiedName.ROOT));
+    }
+
+    @Test
+    public void testEmpty() {
+        QualifiedNameSet set = QualifiedNameSet.of(Collections.<QualifiedName>emptyList());
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+        assertFalse(set.contains(QualifiedName.of("a")));
+        assertTrue(set.subtree(QualifiedName.of("a")).isEmpty());
+    }
+
+    @Test
+    public void testSubtree() {
+        QualifiedNameSet set = QualifiedNameSet.of(NAMES);
+        QualifiedNameSet a = set.subtree(QualifiedName.of("a"));
+        assertEquals(sorted(Arrays.asList(QualifiedName.of("a"), QualifiedName.of("a","b","c"), QualifiedName.of("a","b","d"), QualifiedName.of("a","c"))), new ArrayList<>(a));
+        assertEquals(4, a.size());
+        assertTrue(a.contains(QualifiedName.of("a","c")));
+        assertFalse(a.contains(QualifiedName.of("b")));
+
+        QualifiedNameSet ab = a.subtree(QualifiedName.of("a","b"));
+        assertEquals(Arrays.asList(QualifiedName.of("a","b","c"), QualifiedName.of("a","b","d")), new ArrayList<>(ab));
+        assertTrue(ab.subtree(QualifiedName.of("b")).isEmpty());
+        assertEquals(Arrays.asList(QualifiedName.of("x","y","z")), new ArrayList<>(set.subtree(QualifiedName.of("x","y"))));
+        assertTrue(set.subtree(QualifiedName.of("q")).isEmpty());
+        assertSame(set, set.subtree(QualifiedName.ROOT));
+
+        // Subtree of the root of a view, or of an ancestor of it, is the whole view
+        assertSame(ab, ab.subtree(QualifiedName.of("a","b")));
+        assertSame(ab, ab.subtree(QualifiedName.of("a")));
+        assertSame(ab, ab.subtree(QualifiedName.ROOT));
+        QualifiedNameSet small = QualifiedNameSet.of(Arrays.asList(QualifiedName.of("a","b","c"), QualifiedName.of("a","b","d"), QualifiedName.of("a","x")));
+        assertEquals(Arrays.asList(QualifiedName.of("a","b","c"), QualifiedName.of("a","b","d")), new ArrayList<>(small.subtree(QualifiedName.of("a","b")).subtree(QualifiedName.of("a"))));
+        assertTrue(small.subtree(QualifiedName.of("a","b")).subtree(QualifiedName.of("a","x")).isEmpty());
+    }
+
+    @Test
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(7);
+        List<QualifiedName> names = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            QualifiedName name = QualifiedName.ROOT;
+            int size = 1 + random.nextInt(5);
+            for (int j = 0; j < size; j++) name = name.add(Integer.toString(random.nextInt(6)));
+            names.add(name);
+        }
+        QualifiedNameSet set = QualifiedNameSet.of(names);
+        List<QualifiedName> expected = sorted(names);
+        assertEquals(expected, new ArrayList<>(set));
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < 200; i++) {
+            QualifiedName prefix = names.get(random.nextInt(names.size())).left(1 + random.nextInt(3));
+            List<QualifiedName> subtree = new ArrayList<>();
+            for (QualifiedName name : expected) if (name.startsWith(prefix)) subtree.add(name);
+            QualifiedNameSet view = set.subtree(prefix);
+            assertEquals(subtree, new ArrayList<>(view));
+            assertEquals(subtree.size(), view.size());
+            assertEquals(expected.contains(prefix), set.contains(prefix));
+            // Any ancestor of the prefix selects the whole view
+            QualifiedName ancestor = prefix.left(random.nextInt(prefix.size() + 1));
+            assertEquals(subtree, new ArrayList<>(view.subtree(ancestor)));
+        }
+    }
+
+    @Test
+    public void testMemoryFootprint() {
+        List<QualifiedName> names = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) names.add(QualifiedName.of("common", "prefix", Integer.toString(i % 10), "item" + i));
+        QualifiedNameSet set = QualifiedNameSet.of(names);
+        long footprint = set.memoryFootprint();
+        assertTrue(footprint > 0);
+        // Including the part strings, less than the 24 byte QualifiedName objects alone would need
+        assertTrue(footprint < 1000 * 4 * 24);
+        assertEquals(footprint, set.subtree(QualifiedName.of("common")).memoryFootprint());
+    }
+
+    @Test
+    public void testMemoryPerNode() {
+        // 10 + 100 + 1000 + 10000 nodes sharing a dictionary of 10 parts
+        List<QualifiedName> names = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) names.add(QualifiedName.of(Integer.toString(i / 1000), Integer.toString(i / 100 % 10), Integer.toString(i / 10 % 10), Integer.toString(i % 10)));
+        QualifiedNameSet set = QualifiedNameSet.of(names);
+        assertEquals(10000, set.size());
+        // Three int columns and a member bit per node, plus a fixed allowance for the dictionary
+        int nodes = 11110;
+        assertTrue(set.memoryFootprint() + " bytes", set.memoryFootprint() <= nodes * 13L + 1024);
+    }
+}
@@ -5,8 +5,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.junit.Test;
 
@@ -134,6 +142,11 @@ public class QualifiedNameTest {
 		assertEquals(1,ABC.indexOf(e -> e.equals("b")));
 		assertEquals(2,ABC.indexOf(e -> e.equals("c")));
 		assertEquals(-1,ABC.indexOf(e -> e.equals("d")));
+		assertEquals(-1,QualifiedName.ROOT.indexOf(e -> true));
+		// Parts after the first match are not tested
+		List<String> tested = new ArrayList<>();
+		assertEquals(1,QualifiedName.of("a","b","b","c").indexOf(e -> { tested.add(e); return e.equals("b"); }));
+		assertEquals(Arrays.asList("a","b"), tested);
 	}
 
 	@Test
@@ -258,4 +271,76 @@ public class QualifiedNameTest {
         }
     }
     
+    private static final List<QualifiedName> TREE = Arrays.asList(
+        QualifiedName.of("a"),
+        QualifiedName.of("a",""),
+        QualifiedName.of("a","b"),
+        QualifiedName.of("a","b","c"),
+        QualifiedName.of("a","b","c","d"),
+        QualifiedName.of("a","b\u0000"),
+        QualifiedName.of("a","ba"),
+        QualifiedName.of("a","c"),
+        QualifiedName.of("a\u0000"),
+        QualifiedName.of("aa"),
+        QualifiedName.of("aa","b"),
+        QualifiedName.of("b"),
+        QualifiedName.of("b","a")
+    );
+    
+    @Test
+    public void testDepthFirstOrder() {
+        List<QualifiedName> shuffled = new ArrayList<>(TREE);
+        Collections.shuffle(shuffled);
+        shuffled.sort(QualifiedName.DEPTH_FIRST_ORDER);
+        assertEquals(TREE, shuffled);
+        assertEquals(0, QualifiedName.DEPTH_FIRST_ORDER.compare(QualifiedName.ROOT, QualifiedName.ROOT));
+        assertTrue(QualifiedName.DEPTH_FIRST_ORDER.compare(QualifiedName.ROOT, QualifiedName.of("a")) < 0);
+        assertTrue(QualifiedName.DEPTH_FIRST_ORDER.compare(QualifiedName.of("a","b"), QualifiedName.of("a")) > 0);
+        assertTrue(QualifiedName.DEPTH_FIRST_ORDER.compare(QualifiedName.of("a","b"), QualifiedName.of("b")) < 0);
+        assertEquals(0, QualifiedName.DEPTH_FIRST_ORDER.compare(QualifiedName.of("a","b"), QualifiedName.of("a","b")));
+        // natural ordering puts shorter names first, so subtrees are not contiguous
+        assertTrue(QualifiedName.of("a","b").compareTo(QualifiedName.of("b")) > 0);
+    }
+    
+    @Test
+    public void testSubtreeBounds() {
+        for (QualifiedName root : TREE) {
+            QualifiedName upperBound = root.subtreeUpperBound();
+            assertTrue(QualifiedName.DEPTH_FIRST_ORDER.compare(root, upperBound) < 0);
+            assertEquals(root.size(), upperBound.size());
+            for (QualifiedName name : TREE) {
+                boolean inRange = QualifiedName.DEPTH_FIRST_ORDER.compare(root, name) <= 0 
+                    && QualifiedName.DEPTH_FIRST_ORDER.compare(name, upperBound) < 0;
+                assertEquals(root + " " + name, name.startsWith(root), inRange);
+            }
+        }
+        assertNull(QualifiedName.ROOT.subtreeUpperBound());
+    }
+    
+    @Test
+    public void testSubtreeOfMap() {
+        NavigableMap<QualifiedName,String> map = new ConcurrentSkipListMap<>(QualifiedName.DEPTH_FIRST_ORDER);
+        for (QualifiedName name : TREE) map.put(name, name.toString());
+        assertEquals(
+            Arrays.asList(QualifiedName.of("a","b"), QualifiedName.of("a","b","c"), QualifiedName.of("a","b","c","d")),
+            new ArrayList<>(QualifiedName.of("a","b").subtree(map).keySet())
+        );
+        assertEquals(8, QualifiedName.of("a").subtree(map).size());
+        assertEquals(1, QualifiedName.of("a","b\u0000").subtree(map).size());
+        assertTrue(QualifiedName.of("a","bb").subtree(map).isEmpty());
+        assertEquals(map, QualifiedName.ROOT.subtree(map));
+    }
+    
+    @Test
+    public void testSubtreeOfSet() {
+        NavigableSet<QualifiedName> set = new TreeSet<>(QualifiedName.DEPTH_FIRST_ORDER);
+        set.addAll(TREE);
+        assertEquals(new TreeSet<>(Arrays.asList(QualifiedName.of("aa"), QualifiedName.of("aa","b"))), QualifiedName.of("aa").subtree(set));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubtreeOfNaturallyOrderedMap() {
+        QualifiedName.of("a").subtree(new TreeMap<QualifiedName,String>());
+    }
+    
 }